@@ -1,7 +1,47 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.OutputStream;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
 
 
 class Registro {
@@ -24,9 +64,17 @@ interface TabelaHash {
     boolean inserir(Registro r);
     boolean buscar(Registro r);
     long getColisoes();
+    long getRedimensionamentos();
+    int getCapacidade();
     void resetarEstatisticas();
     int[] getTop3Listas();
     GapStats calcularGaps();
+    long getBytesRetidos();
+    Spliterator<String> spliterator();
+    default void forEach(Consumer<? super String> acao) { spliterator().forEachRemaining(acao); }
+    default Stream<String> stream() { return StreamSupport.stream(spliterator(), false); }
+    default Stream<String> parallelStream() { return StreamSupport.stream(spliterator(), true); }
+    default IntStream intStream() { return stream().mapToInt(Integer::parseInt); }
 }
 
 class HashEncadeamento implements TabelaHash {
@@ -100,8 +148,21 @@ class HashEncadeamento implements TabelaHash {
         return resultado;
     }
     @Override public long getColisoes() { return colisoes; }
+    @Override public long getRedimensionamentos() { return 0; }
+    @Override public int getCapacidade() { return tabela.length; }
     @Override public void resetarEstatisticas() { colisoes = 0; }
     @Override public GapStats calcularGaps() { return UtilitariosHash.calcularGapsGenerico(tabela); }
+    @Override public Spliterator<String> spliterator() { return new SpliteratorEncadeamento(tabela, 0, tabela.length); }
+    @Override
+    public long getBytesRetidos() {
+        long total = UtilitariosHash.bytesVetor(tabela.length, UtilitariosHash.BYTES_REFERENCIA);
+        for (No head : tabela) {
+            for (No atual = head; atual != null; atual = atual.prox) {
+                total += UtilitariosHash.BYTES_NO + UtilitariosHash.BYTES_REGISTRO + UtilitariosHash.bytesString(atual.dado.codigo);
+            }
+        }
+        return total;
+    }
 }
 
 class HashSondagemQuadratica implements TabelaHash {
@@ -122,7 +183,7 @@ class HashSondagemQuadratica implements TabelaHash {
         while (tabela[indiceAtual] != null) {
             colisoes++;
             tentativas++;
-            indiceAtual = (indiceInicial + tentativas * tentativas) % tabela.length;
+            indiceAtual = (int) ((indiceInicial + (long) tentativas * tentativas) % tabela.length);
             if (tentativas >= tabela.length) return false;
         }
         tabela[indiceAtual] = r.codigo;
@@ -138,14 +199,18 @@ class HashSondagemQuadratica implements TabelaHash {
                 return true;
             }
             tentativas++;
-            indiceAtual = (indiceInicial + tentativas * tentativas) % tabela.length;
+            indiceAtual = (int) ((indiceInicial + (long) tentativas * tentativas) % tabela.length);
         }
         return false;
     }
     @Override public long getColisoes() { return colisoes; }
+    @Override public long getRedimensionamentos() { return 0; }
+    @Override public int getCapacidade() { return tabela.length; }
     @Override public void resetarEstatisticas() { colisoes = 0; }
     @Override public int[] getTop3Listas() { return new int[]{0,0,0}; }
     @Override public GapStats calcularGaps() { return UtilitariosHash.calcularGapsGenerico(tabela); }
+    @Override public Spliterator<String> spliterator() { return new SpliteratorEnderecamentoAberto(tabela, 0, tabela.length); }
+    @Override public long getBytesRetidos() { return UtilitariosHash.bytesEnderecamentoAberto(tabela); }
 }
 
 class HashDuplo implements TabelaHash {
@@ -175,7 +240,7 @@ class HashDuplo implements TabelaHash {
         while (tabela[indiceAtual] != null) {
             colisoes++;
             i++;
-            indiceAtual = (indiceBase + i * passo) % tabela.length;
+            indiceAtual = (int) ((indiceBase + (long) i * passo) % tabela.length);
             if (i >= tabela.length) return false;
         }
         tabela[indiceAtual] = r.codigo;
@@ -192,22 +257,513 @@ class HashDuplo implements TabelaHash {
                 return true;
             }
             i++;
-            indiceAtual = (indiceBase + i * passo) % tabela.length;
+            indiceAtual = (int) ((indiceBase + (long) i * passo) % tabela.length);
         }
         return false;
     }
     @Override public long getColisoes() { return colisoes; }
+    @Override public long getRedimensionamentos() { return 0; }
+    @Override public int getCapacidade() { return tabela.length; }
     @Override public void resetarEstatisticas() { colisoes = 0; }
     @Override public int[] getTop3Listas() { return new int[]{0,0,0}; }
     @Override public GapStats calcularGaps() { return UtilitariosHash.calcularGapsGenerico(tabela); }
+    @Override public Spliterator<String> spliterator() { return new SpliteratorEnderecamentoAberto(tabela, 0, tabela.length); }
+    @Override public long getBytesRetidos() { return UtilitariosHash.bytesEnderecamentoAberto(tabela); }
+}
+
+class HashHopscotch implements TabelaHash {
+    static final int VIZINHANCA = 32;
+    static final int ALCANCE_SONDAGEM = 1024;
+    static final int MAXIMO_DOBRAS = 4;
+    static final int VAZIO = -1;
+    private int[] tabela;
+    private int[] vizinhos;
+    private int ocupados = 0;
+    private long colisoes = 0;
+    private long redimensionamentos = 0;
+    public HashHopscotch(int capacidade) {
+        tabela = novosSlots(capacidade);
+        vizinhos = new int[capacidade];
+    }
+    private static int[] novosSlots(int capacidade) {
+        int[] slots = new int[capacidade];
+        Arrays.fill(slots, VAZIO);
+        return slots;
+    }
+    private int hash(int chave) {
+        long A = 2654435769L;
+        long produto = chave * A;
+        return (int)((produto >>> 32) % tabela.length);
+    }
+    private int avancar(int indice, int passos) {
+        indice += passos;
+        return indice >= tabela.length ? indice - tabela.length : indice;
+    }
+    @Override
+    public boolean inserir(Registro r) {
+        int chave = Integer.parseInt(r.codigo);
+        if (tentarInserir(chave, true)) return true;
+        int[] antiga = tabela;
+        int[] antigosVizinhos = vizinhos;
+        int antigosOcupados = ocupados;
+        for (int dobra = 1; dobra <= MAXIMO_DOBRAS && ((long) antiga.length << dobra) <= Integer.MAX_VALUE - 8; dobra++) {
+            if (reinserirTodas(antiga, antiga.length << dobra) && tentarInserir(chave, true)) {
+                redimensionamentos += dobra;
+                return true;
+            }
+        }
+        tabela = antiga;
+        vizinhos = antigosVizinhos;
+        ocupados = antigosOcupados;
+        return false;
+    }
+    private boolean tentarInserir(int chave, boolean contarColisoes) {
+        int casa = hash(chave);
+        if (contem(chave, casa)) return true;
+        if (ocupados == tabela.length) return false;
+        int livre = casa;
+        int distancia = 0;
+        while (tabela[livre] != VAZIO) {
+            if (contarColisoes) colisoes++;
+            distancia++;
+            if (distancia >= ALCANCE_SONDAGEM || distancia >= tabela.length) return false;
+            livre = avancar(livre, 1);
+        }
+        while (distancia >= VIZINHANCA) {
+            int deslocado = -1;
+            for (int d = VIZINHANCA - 1; d > 0 && deslocado < 0; d--) {
+                int bucket = avancar(livre, tabela.length - d);
+                int mapa = vizinhos[bucket];
+                if (mapa != 0 && Integer.numberOfTrailingZeros(mapa) < d) {
+                    int j = Integer.numberOfTrailingZeros(mapa);
+                    int origem = avancar(bucket, j);
+                    tabela[livre] = tabela[origem];
+                    tabela[origem] = VAZIO;
+                    vizinhos[bucket] = (mapa & ~(1 << j)) | (1 << d);
+                    deslocado = origem;
+                    distancia -= d - j;
+                }
+            }
+            if (deslocado < 0) return false;
+            livre = deslocado;
+        }
+        tabela[livre] = chave;
+        vizinhos[casa] |= 1 << distancia;
+        ocupados++;
+        return true;
+    }
+    private boolean reinserirTodas(int[] antiga, int capacidade) {
+        tabela = novosSlots(capacidade);
+        vizinhos = new int[capacidade];
+        ocupados = 0;
+        for (int chave : antiga) {
+            if (chave != VAZIO && !tentarInserir(chave, false)) return false;
+        }
+        return true;
+    }
+    @Override
+    public boolean buscar(Registro r) {
+        int chave = Integer.parseInt(r.codigo);
+        return contem(chave, hash(chave));
+    }
+    private boolean contem(int chave, int casa) {
+        int mapa = vizinhos[casa];
+        while (mapa != 0) {
+            if (tabela[avancar(casa, Integer.numberOfTrailingZeros(mapa))] == chave) {
+                return true;
+            }
+            mapa &= mapa - 1;
+        }
+        return false;
+    }
+    @Override public long getColisoes() { return colisoes; }
+    @Override public long getRedimensionamentos() { return redimensionamentos; }
+    @Override public int getCapacidade() { return tabela.length; }
+    @Override public void resetarEstatisticas() { colisoes = 0; redimensionamentos = 0; }
+    @Override public int[] getTop3Listas() { return new int[]{0,0,0}; }
+    @Override public GapStats calcularGaps() { return UtilitariosHash.calcularGapsGenerico(tabela, VAZIO); }
+    @Override public Spliterator<String> spliterator() { return new SpliteratorCodigosInt(tabela, VAZIO, 0, tabela.length); }
+    @Override public IntStream intStream() { return Arrays.stream(tabela).filter(chave -> chave != VAZIO); }
+    @Override public long getBytesRetidos() {
+        return UtilitariosHash.bytesVetor(tabela.length, Integer.BYTES) + UtilitariosHash.bytesVetor(vizinhos.length, Integer.BYTES);
+    }
+}
+
+class SpliteratorEnderecamentoAberto implements Spliterator<String> {
+    static final int TAMANHO_MINIMO_DIVISAO = 1 << 12;
+    private final String[] tabela;
+    private int indice;
+    private final int fim;
+    SpliteratorEnderecamentoAberto(String[] tabela, int inicio, int fim) {
+        this.tabela = tabela;
+        this.indice = inicio;
+        this.fim = fim;
+    }
+    @Override
+    public boolean tryAdvance(Consumer<? super String> acao) {
+        while (indice < fim) {
+            String codigo = tabela[indice++];
+            if (codigo != null) {
+                acao.accept(codigo);
+                return true;
+            }
+        }
+        return false;
+    }
+    @Override
+    public void forEachRemaining(Consumer<? super String> acao) {
+        String[] t = tabela;
+        for (int i = indice; i < fim; i++) {
+            if (t[i] != null) acao.accept(t[i]);
+        }
+        indice = fim;
+    }
+    @Override
+    public Spliterator<String> trySplit() {
+        if (fim - indice < TAMANHO_MINIMO_DIVISAO) return null;
+        int meio = (indice + fim) >>> 1;
+        Spliterator<String> prefixo = new SpliteratorEnderecamentoAberto(tabela, indice, meio);
+        indice = meio;
+        return prefixo;
+    }
+    @Override public long estimateSize() { return fim - indice; }
+    @Override public int characteristics() { return NONNULL; }
+}
+
+class SpliteratorCodigosInt implements Spliterator<String> {
+    private final int[] tabela;
+    private final int vazio;
+    private int indice;
+    private final int fim;
+    SpliteratorCodigosInt(int[] tabela, int vazio, int inicio, int fim) {
+        this.tabela = tabela;
+        this.vazio = vazio;
+        this.indice = inicio;
+        this.fim = fim;
+    }
+    @Override
+    public boolean tryAdvance(Consumer<? super String> acao) {
+        while (indice < fim) {
+            int chave = tabela[indice++];
+            if (chave != vazio) {
+                acao.accept(UtilitariosHash.formatarCodigo(chave));
+                return true;
+            }
+        }
+        return false;
+    }
+    @Override
+    public void forEachRemaining(Consumer<? super String> acao) {
+        int[] t = tabela;
+        for (int i = indice; i < fim; i++) {
+            if (t[i] != vazio) acao.accept(UtilitariosHash.formatarCodigo(t[i]));
+        }
+        indice = fim;
+    }
+    @Override
+    public Spliterator<String> trySplit() {
+        if (fim - indice < SpliteratorEnderecamentoAberto.TAMANHO_MINIMO_DIVISAO) return null;
+        int meio = (indice + fim) >>> 1;
+        Spliterator<String> prefixo = new SpliteratorCodigosInt(tabela, vazio, indice, meio);
+        indice = meio;
+        return prefixo;
+    }
+    @Override public long estimateSize() { return fim - indice; }
+    @Override public int characteristics() { return NONNULL; }
+}
+
+class SpliteratorEncadeamento implements Spliterator<String> {
+    private final HashEncadeamento.No[] tabela;
+    private int indice;
+    private final int fim;
+    private HashEncadeamento.No atual;
+    SpliteratorEncadeamento(HashEncadeamento.No[] tabela, int inicio, int fim) {
+        this.tabela = tabela;
+        this.indice = inicio;
+        this.fim = fim;
+    }
+    @Override
+    public boolean tryAdvance(Consumer<? super String> acao) {
+        while (atual == null) {
+            if (indice >= fim) return false;
+            atual = tabela[indice++];
+        }
+        acao.accept(atual.dado.codigo);
+        atual = atual.prox;
+        return true;
+    }
+    @Override
+    public void forEachRemaining(Consumer<? super String> acao) {
+        for (HashEncadeamento.No no = atual; no != null; no = no.prox) acao.accept(no.dado.codigo);
+        atual = null;
+        HashEncadeamento.No[] t = tabela;
+        for (int i = indice; i < fim; i++) {
+            for (HashEncadeamento.No no = t[i]; no != null; no = no.prox) acao.accept(no.dado.codigo);
+        }
+        indice = fim;
+    }
+    @Override
+    public Spliterator<String> trySplit() {
+        if (fim - indice < 2) return null;
+        int meio = (indice + fim) >>> 1;
+        Spliterator<String> prefixo = new SpliteratorEncadeamento(tabela, indice, meio);
+        indice = meio;
+        return prefixo;
+    }
+    @Override public long estimateSize() { return fim - indice; }
+    @Override public int characteristics() { return NONNULL; }
+}
+
+class HashAdaptativa implements TabelaHash {
+    static final double LIMIAR_CARGA_SONDAGEM = 0.75;
+    static final double LIMIAR_CARGA_ENCADEAMENTO = 8.0;
+    static final double LIMIAR_SONDAGEM_MEDIA = 4.0;
+    static final long LIMIAR_SONDAGEM_MAXIMA = 128;
+    static final double LIMIAR_FALHAS_BUSCA = 0.5;
+    static final int JANELA = 1024;
+    static final int PASSO_MIGRACAO = 64;
+    private TabelaHash atual;
+    private int capacidade;
+    private TabelaHash antiga;
+    private Spliterator<String> pendentes;
+    private long bytesCompartilhados = 0;
+    private final Consumer<String> migrar = codigo -> {
+        if (atual.inserir(new Registro(codigo))) bytesCompartilhados += UtilitariosHash.bytesString(codigo);
+    };
+    private int quantidade = 0;
+    private long operacoes = 0;
+    private long colisoesAnteriores = 0;
+    private long colisoesMigracao = 0;
+    private long redimensionamentos = 0;
+    private long trocasRepresentacao = 0;
+    private final List<String> historicoTrocas = new ArrayList<>();
+    private int operacoesJanela = 0;
+    private int insercoesJanela = 0;
+    private long sondagensJanela = 0;
+    private long maiorSondagemJanela = 0;
+    private int acertosJanela = 0;
+    private int falhasJanela = 0;
+    public HashAdaptativa(int capacidade) {
+        this.capacidade = capacidade;
+        this.atual = new HashDuplo(capacidade);
+    }
+    @Override
+    public boolean inserir(Registro r) {
+        passoMigracao();
+        long colisoesAntes = atual.getColisoes();
+        boolean inserido = atual.inserir(r);
+        long sondagem = atual.getColisoes() - colisoesAntes;
+        if (!inserido && antiga == null) {
+            trocar("tabela cheia");
+            inserido = atual.inserir(r);
+        }
+        if (inserido) quantidade++;
+        insercoesJanela++;
+        sondagensJanela += sondagem;
+        maiorSondagemJanela = Math.max(maiorSondagemJanela, sondagem);
+        if (antiga == null && carga() >= limiarCarga()) trocar("fator de carga");
+        registrarOperacao();
+        return inserido;
+    }
+    @Override
+    public boolean buscar(Registro r) {
+        passoMigracao();
+        boolean achou = atual.buscar(r) || (antiga != null && antiga.buscar(r));
+        if (achou) acertosJanela++; else falhasJanela++;
+        registrarOperacao();
+        return achou;
+    }
+    private double carga() { return (double) quantidade / capacidade; }
+    private double limiarCarga() {
+        return atual instanceof HashEncadeamento ? LIMIAR_CARGA_ENCADEAMENTO : LIMIAR_CARGA_SONDAGEM;
+    }
+    private double taxaFalhas() {
+        int buscas = acertosJanela + falhasJanela;
+        return buscas == 0 ? 0.0 : (double) falhasJanela / buscas;
+    }
+    private double mediaSondagem() {
+        return insercoesJanela == 0 ? 0.0 : (double) sondagensJanela / insercoesJanela;
+    }
+    private void registrarOperacao() {
+        operacoes++;
+        if (++operacoesJanela < JANELA) return;
+        if (antiga == null && atual instanceof HashDuplo) {
+            if (mediaSondagem() > LIMIAR_SONDAGEM_MEDIA) trocar("sondagem média");
+            else if (maiorSondagemJanela > LIMIAR_SONDAGEM_MAXIMA) trocar("sondagem máxima");
+            else if (taxaFalhas() > LIMIAR_FALHAS_BUSCA && carga() > LIMIAR_CARGA_SONDAGEM / 2) trocar("buscas sem sucesso");
+        }
+        operacoesJanela = 0;
+        insercoesJanela = 0;
+        sondagensJanela = 0;
+        maiorSondagemJanela = 0;
+        acertosJanela = 0;
+        falhasJanela = 0;
+    }
+    private void trocar(String motivo) {
+        String anterior = getRepresentacao();
+        int capacidadeAnterior = capacidade;
+        boolean agrupamento = carga() < LIMIAR_CARGA_SONDAGEM
+            && (mediaSondagem() > LIMIAR_SONDAGEM_MEDIA || maiorSondagemJanela > LIMIAR_SONDAGEM_MAXIMA);
+        TabelaHash nova;
+        if (atual instanceof HashDuplo && (agrupamento || taxaFalhas() > LIMIAR_FALHAS_BUSCA)) {
+            nova = new HashEncadeamento(capacidade);
+            trocasRepresentacao++;
+        } else if (atual instanceof HashDuplo) {
+            capacidade = UtilitariosHash.proximoPrimo(2 * capacidade);
+            nova = new HashDuplo(capacidade);
+            redimensionamentos++;
+        } else {
+            capacidade = UtilitariosHash.proximoPrimo(2 * capacidade);
+            nova = new HashEncadeamento(capacidade);
+            redimensionamentos++;
+        }
+        String troca = String.format(Locale.ROOT,
+            "op %d: %s(%d) -> %s(%d) | motivo: %s | carga %.2f | sondagem média %.2f, máxima %d | buscas sem sucesso %.0f%%",
+            operacoes, anterior, capacidadeAnterior, nome(nova), capacidade, motivo,
+            (double) quantidade / capacidadeAnterior, mediaSondagem(), maiorSondagemJanela, 100 * taxaFalhas());
+        historicoTrocas.add(troca);
+        antiga = atual;
+        pendentes = antiga.spliterator();
+        bytesCompartilhados = 0;
+        atual = nova;
+    }
+    private void passoMigracao() {
+        if (antiga == null) return;
+        long colisoesAntes = atual.getColisoes();
+        boolean restam = true;
+        for (int i = 0; i < PASSO_MIGRACAO && restam; i++) {
+            restam = pendentes.tryAdvance(migrar);
+        }
+        colisoesMigracao += atual.getColisoes() - colisoesAntes;
+        if (!restam) {
+            colisoesAnteriores += antiga.getColisoes();
+            antiga = null;
+            pendentes = null;
+            bytesCompartilhados = 0;
+        }
+    }
+
+    private void concluirMigracao() {
+        while (antiga != null) passoMigracao();
+    }
+    public List<String> getHistoricoTrocas() { return historicoTrocas; }
+    public String getRepresentacao() { return nome(atual); }
+    public long getTrocasRepresentacao() { return trocasRepresentacao; }
+    private static String nome(TabelaHash tabela) { return tabela instanceof HashDuplo ? "Hash Duplo" : "Encadeamento"; }
+    @Override public long getColisoes() {
+        return colisoesAnteriores + atual.getColisoes() + (antiga != null ? antiga.getColisoes() : 0) - colisoesMigracao;
+    }
+    @Override public long getRedimensionamentos() { return redimensionamentos; }
+    @Override public int getCapacidade() { return atual.getCapacidade(); }
+    @Override public void resetarEstatisticas() {
+        colisoesAnteriores = 0;
+        colisoesMigracao = 0;
+        redimensionamentos = 0;
+        trocasRepresentacao = 0;
+        atual.resetarEstatisticas();
+        if (antiga != null) antiga.resetarEstatisticas();
+    }
+    @Override public int[] getTop3Listas() { return atual.getTop3Listas(); }
+    @Override public GapStats calcularGaps() { return atual.calcularGaps(); }
+    @Override public long getBytesRetidos() {
+        return atual.getBytesRetidos() + (antiga != null ? antiga.getBytesRetidos() - bytesCompartilhados : 0);
+    }
+    @Override public Spliterator<String> spliterator() {
+        concluirMigracao();
+        return atual.spliterator();
+    }
 }
 
 class UtilitariosHash {
+    static final boolean OOPS_COMPRIMIDOS = opcaoVm("UseCompressedOops", true);
+    static final boolean CLASSES_COMPRIMIDAS = opcaoVm("UseCompressedClassPointers", true);
+    static final int BYTES_REFERENCIA = OOPS_COMPRIMIDOS ? 4 : 8;
+    static final int CABECALHO_OBJETO = CLASSES_COMPRIMIDAS ? 12 : 16;
+    static final int CABECALHO_VETOR = (int) alinhar(CABECALHO_OBJETO + 4);
+    static final int BYTES_NO = (int) alinhar(CABECALHO_OBJETO + 2 * BYTES_REFERENCIA);
+    static final int BYTES_REGISTRO = (int) alinhar(CABECALHO_OBJETO + BYTES_REFERENCIA);
+    static final int BYTES_STRING = (int) alinhar(CABECALHO_OBJETO + BYTES_REFERENCIA + 4 + 1 + 1);
+    private static final AtomicLong picoAntesGc = new AtomicLong();
+    private static final Map<String, Long> coletaNoReinicio = new ConcurrentHashMap<>();
+    private static final Set<String> POOLS_HEAP = new HashSet<>();
+    static {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) POOLS_HEAP.add(pool.getName());
+        }
+        NotificationListener ouvinte = (notificacao, contexto) -> {
+            if (!notificacao.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) return;
+            GarbageCollectionNotificationInfo coleta = GarbageCollectionNotificationInfo.from((CompositeData) notificacao.getUserData());
+            registrarColeta(coleta.getGcName(), coleta.getGcInfo());
+        };
+        for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (coletor instanceof NotificationEmitter) {
+                ((NotificationEmitter) coletor).addNotificationListener(ouvinte, null, null);
+            }
+        }
+    }
+    private static boolean opcaoVm(String nome, boolean padrao) {
+        HotSpotDiagnosticMXBean hotspot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        if (hotspot == null) return padrao;
+        try {
+            return Boolean.parseBoolean(hotspot.getVMOption(nome).getValue());
+        } catch (IllegalArgumentException e) {
+            return padrao;
+        }
+    }
+    public static long alinhar(long bytes) { return (bytes + 7) & ~7L; }
+    public static long bytesVetor(int elementos, int bytesPorElemento) {
+        return alinhar(CABECALHO_VETOR + (long) elementos * bytesPorElemento);
+    }
+    public static long bytesString(String s) {
+        return BYTES_STRING + bytesVetor(s.length(), 1);
+    }
+    public static long bytesEnderecamentoAberto(String[] tabela) {
+        long total = bytesVetor(tabela.length, BYTES_REFERENCIA);
+        for (String codigo : tabela) {
+            if (codigo != null) total += bytesString(codigo);
+        }
+        return total;
+    }
+    public static long usoHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+    public static void reiniciarPicoHeap() {
+        for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+            GcInfo ultima = ultimaColeta(coletor);
+            coletaNoReinicio.put(coletor.getName(), ultima != null ? ultima.getId() : 0L);
+        }
+        picoAntesGc.set(0);
+    }
+    public static long picoHeap() {
+        for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+            registrarColeta(coletor.getName(), ultimaColeta(coletor));
+        }
+        return Math.max(picoAntesGc.get(), usoHeap());
+    }
+    private static void registrarColeta(String coletor, GcInfo info) {
+        if (info == null || info.getId() <= coletaNoReinicio.getOrDefault(coletor, 0L)) return;
+        long usado = 0;
+        for (Map.Entry<String, MemoryUsage> pool : info.getMemoryUsageBeforeGc().entrySet()) {
+            if (POOLS_HEAP.contains(pool.getKey())) usado += pool.getValue().getUsed();
+        }
+        picoAntesGc.accumulateAndGet(usado, Math::max);
+    }
+    private static GcInfo ultimaColeta(GarbageCollectorMXBean coletor) {
+        return coletor instanceof com.sun.management.GarbageCollectorMXBean
+            ? ((com.sun.management.GarbageCollectorMXBean) coletor).getLastGcInfo()
+            : null;
+    }
     public static GapStats calcularGapsGenerico(Object[] tabela) {
+        return calcularGaps(tabela.length, i -> tabela[i] != null);
+    }
+    public static GapStats calcularGapsGenerico(int[] tabela, int vazio) {
+        return calcularGaps(tabela.length, i -> tabela[i] != vazio);
+    }
+    private static GapStats calcularGaps(int tamanho, IntPredicate ocupado) {
         int ultimoOcupado = -1;
         List<Integer> gaps = new ArrayList<>();
-        for (int i = 0; i < tabela.length; i++) {
-            if (tabela[i] != null) {
+        for (int i = 0; i < tamanho; i++) {
+            if (ocupado.test(i)) {
                 if (ultimoOcupado != -1) {
                     gaps.add(i - ultimoOcupado - 1);
                 }
@@ -220,6 +776,530 @@ class UtilitariosHash {
         double media = gaps.stream().mapToInt(Integer::intValue).average().orElse(0.0);
         return new GapStats(min, max, media);
     }
+    public static int proximoPrimo(int n) {
+        int candidato = Math.max(n, 2);
+        while (!ehPrimo(candidato)) candidato++;
+        return candidato;
+    }
+    private static boolean ehPrimo(int n) {
+        for (int d = 2; (long) d * d <= n; d++) {
+            if (n % d == 0) return false;
+        }
+        return true;
+    }
+    public static String formatarCodigo(int codigo) {
+        char[] digitos = new char[9];
+        for (int i = 8; i >= 0; i--) {
+            digitos[i] = (char) ('0' + codigo % 10);
+            codigo /= 10;
+        }
+        return new String(digitos);
+    }
+}
+
+class ServidorHash {
+    static final int OP_INSERIR = 1;
+    static final int OP_BUSCAR = 2;
+    static final int OP_BUSCAR_LOTE = 3;
+    static final int MAXIMO_LOTE = 4096;
+    static final int MAIOR_CODIGO = 999_999_999;
+    private final TabelaHash tabela;
+    private final ReentrantLock trava = new ReentrantLock();
+    private final ServerSocket servidor;
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong operacoes = new AtomicLong();
+    public ServidorHash(TabelaHash tabela, InetAddress endereco, int porta) throws IOException {
+        this.tabela = tabela;
+        this.servidor = new ServerSocket(porta, 128, endereco);
+    }
+    public int getPorta() { return servidor.getLocalPort(); }
+    public long getLotes() { return lotes.get(); }
+    public long getOperacoes() { return operacoes.get(); }
+    public void executar() throws IOException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (!servidor.isClosed()) {
+                Socket conexao;
+                try {
+                    conexao = servidor.accept();
+                } catch (SocketException e) {
+                    break;
+                }
+                executor.submit(() -> atender(conexao));
+            }
+        }
+    }
+    public void fechar() throws IOException { servidor.close(); }
+    private void atender(Socket conexao) {
+        int[] operacoesLote = new int[MAXIMO_LOTE];
+        int[] codigos = new int[MAXIMO_LOTE];
+        byte[] respostas = new byte[MAXIMO_LOTE];
+        try (conexao) {
+            conexao.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(conexao.getInputStream(), 1 << 16));
+            OutputStream out = new BufferedOutputStream(conexao.getOutputStream(), 1 << 16);
+            while (true) {
+                int op = in.read();
+                if (op < 0) return;
+                int n = 0;
+                while (true) {
+                    if (op != OP_INSERIR && op != OP_BUSCAR && op != OP_BUSCAR_LOTE) {
+                        throw new IOException("Operação desconhecida: " + op);
+                    }
+                    int quantidade = op == OP_BUSCAR_LOTE ? in.readInt() : 1;
+                    if (quantidade < 0 || quantidade > MAXIMO_LOTE) {
+                        throw new IOException("Tamanho de lote inválido: " + quantidade);
+                    }
+                    if (n + quantidade > MAXIMO_LOTE) {
+                        processarLote(operacoesLote, codigos, respostas, n, out);
+                        n = 0;
+                    }
+                    for (int k = 0; k < quantidade; k++) {
+                        operacoesLote[n] = op == OP_INSERIR ? OP_INSERIR : OP_BUSCAR;
+                        codigos[n++] = in.readInt();
+                    }
+                    if (in.available() == 0) break;
+                    op = in.read();
+                }
+                processarLote(operacoesLote, codigos, respostas, n, out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Conexão encerrada com erro: " + e.getMessage());
+        }
+    }
+    private void processarLote(int[] operacoesLote, int[] codigos, byte[] respostas, int n, OutputStream out) throws IOException {
+        if (n == 0) return;
+        Registro[] registros = new Registro[n];
+        for (int i = 0; i < n; i++) {
+            registros[i] = codigos[i] >= 0 && codigos[i] <= MAIOR_CODIGO
+                ? new Registro(UtilitariosHash.formatarCodigo(codigos[i])) : null;
+        }
+        trava.lock();
+        try {
+            for (int i = 0; i < n; i++) {
+                boolean ok = registros[i] != null
+                    && (operacoesLote[i] == OP_INSERIR ? tabela.inserir(registros[i]) : tabela.buscar(registros[i]));
+                respostas[i] = (byte) (ok ? 1 : 0);
+            }
+        } finally {
+            trava.unlock();
+        }
+        lotes.incrementAndGet();
+        operacoes.addAndGet(n);
+        out.write(respostas, 0, n);
+    }
+}
+
+class ClienteCargaHash {
+    static final int BALDES_LATENCIA = 100_000;
+    private final InetAddress endereco;
+    private final int porta;
+    private final int conexoes;
+    private final int profundidade;
+    private final int lote;
+    private int[] chaves = new int[0];
+    private final LongAdder acertos = new LongAdder();
+    public ClienteCargaHash(InetAddress endereco, int porta, int conexoes, int profundidade, int lote) {
+        this.endereco = endereco;
+        this.porta = porta;
+        this.conexoes = conexoes;
+        this.profundidade = profundidade;
+        this.lote = lote;
+    }
+    public void carregar(Registro[] registros) throws IOException {
+        chaves = new int[registros.length];
+        for (int i = 0; i < registros.length; i++) chaves[i] = Integer.parseInt(registros[i].codigo);
+        try (Socket socket = new Socket(endereco, porta)) {
+            socket.setTcpNoDelay(true);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            byte[] respostas = new byte[ServidorHash.MAXIMO_LOTE];
+            for (int inicio = 0; inicio < chaves.length; inicio += ServidorHash.MAXIMO_LOTE) {
+                int fim = Math.min(chaves.length, inicio + ServidorHash.MAXIMO_LOTE);
+                for (int i = inicio; i < fim; i++) {
+                    out.writeByte(ServidorHash.OP_INSERIR);
+                    out.writeInt(chaves[i]);
+                }
+                out.flush();
+                in.readFully(respostas, 0, fim - inicio);
+            }
+        }
+    }
+    public void medir(int duracaoSegundos) throws Exception {
+        long[][] histogramas = new long[conexoes][];
+        long[] requisicoes = new long[conexoes];
+        acertos.reset();
+        long inicio = System.nanoTime();
+        long prazo = inicio + duracaoSegundos * 1_000_000_000L;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int c = 0; c < conexoes; c++) {
+                int id = c;
+                tarefas.add(executor.submit(() -> {
+                    histogramas[id] = new long[BALDES_LATENCIA + 1];
+                    requisicoes[id] = conexao(prazo, histogramas[id], executor);
+                    return null;
+                }));
+            }
+            for (Future<?> tarefa : tarefas) tarefa.get();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        long[] total = new long[BALDES_LATENCIA + 1];
+        long totalRequisicoes = 0;
+        for (int c = 0; c < conexoes; c++) {
+            totalRequisicoes += requisicoes[c];
+            for (int b = 0; b <= BALDES_LATENCIA; b++) total[b] += histogramas[c][b];
+        }
+        int codigosPorRequisicao = Math.max(lote, 1);
+        System.out.printf(Locale.ROOT, "Requisições: %d em %.2f s | %.0f req/s | %.0f códigos/s | acertos %.1f%%\n",
+            totalRequisicoes, segundos, totalRequisicoes / segundos, totalRequisicoes * codigosPorRequisicao / segundos,
+            totalRequisicoes == 0 ? 0.0 : 100.0 * acertos.sum() / (totalRequisicoes * codigosPorRequisicao));
+        System.out.printf(Locale.ROOT, "Latência (µs): p50 %s | p90 %s | p99 %s | p99.9 %s | máx %s\n",
+            percentil(total, totalRequisicoes, 0.50), percentil(total, totalRequisicoes, 0.90),
+            percentil(total, totalRequisicoes, 0.99), percentil(total, totalRequisicoes, 0.999),
+            maximo(total));
+        System.out.println("Gerador em malha fechada: a espera por vaga no pipeline não entra na latência, então a cauda fica subestimada.");
+    }
+    private long conexao(long prazo, long[] histograma, ExecutorService executor) throws Exception {
+        try (Socket socket = new Socket(endereco, porta)) {
+            socket.setTcpNoDelay(true);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            Semaphore emAndamento = new Semaphore(profundidade);
+            AtomicLongArray envios = new AtomicLongArray(profundidade);
+            int tamanhoResposta = Math.max(lote, 1);
+            AtomicBoolean lendo = new AtomicBoolean(true);
+            Future<Long> leitor = executor.submit(() -> {
+                byte[] resposta = new byte[tamanhoResposta];
+                long recebidas = 0;
+                try {
+                    while (true) {
+                        try {
+                            in.readFully(resposta, 0, tamanhoResposta);
+                        } catch (EOFException e) {
+                            return recebidas;
+                        }
+                        long latenciaMicros = (System.nanoTime() - envios.get((int) (recebidas % profundidade))) / 1000;
+                        histograma[(int) Math.min(latenciaMicros, BALDES_LATENCIA)]++;
+                        int achados = 0;
+                        for (int k = 0; k < tamanhoResposta; k++) achados += resposta[k];
+                        acertos.add(achados);
+                        recebidas++;
+                        emAndamento.release();
+                    }
+                } finally {
+                    lendo.set(false);
+                    emAndamento.release(profundidade);
+                }
+            });
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            long enviadas = 0;
+            try {
+                while (System.nanoTime() < prazo && lendo.get()) {
+                    if (!emAndamento.tryAcquire()) {
+                        out.flush();
+                        if (!emAndamento.tryAcquire(prazo - System.nanoTime(), TimeUnit.NANOSECONDS) || !lendo.get()) break;
+                    }
+                    envios.set((int) (enviadas % profundidade), System.nanoTime());
+                    if (lote == 0) {
+                        out.writeByte(ServidorHash.OP_BUSCAR);
+                        out.writeInt(proximaChave(aleatorio));
+                    } else {
+                        out.writeByte(ServidorHash.OP_BUSCAR_LOTE);
+                        out.writeInt(lote);
+                        for (int k = 0; k < lote; k++) out.writeInt(proximaChave(aleatorio));
+                    }
+                    enviadas++;
+                }
+                out.flush();
+                socket.shutdownOutput();
+            } catch (SocketException e) {
+                if (lendo.get()) throw e;
+            }
+            long recebidas = leitor.get();
+            if (recebidas < enviadas) {
+                throw new IOException("O servidor encerrou a conexão com " + (enviadas - recebidas) + " requisição(ões) sem resposta");
+            }
+            return recebidas;
+        }
+    }
+    private int proximaChave(ThreadLocalRandom aleatorio) {
+        return chaves.length > 0 ? chaves[aleatorio.nextInt(chaves.length)] : aleatorio.nextInt(ServidorHash.MAIOR_CODIGO + 1);
+    }
+    private static String percentil(long[] histograma, long total, double fracao) {
+        long alvo = (long) Math.ceil(total * fracao);
+        long acumulado = 0;
+        for (int b = 0; b < histograma.length; b++) {
+            acumulado += histograma[b];
+            if (acumulado >= alvo && acumulado > 0) return rotulo(b);
+        }
+        return "0";
+    }
+    private static String maximo(long[] histograma) {
+        for (int b = histograma.length - 1; b >= 0; b--) {
+            if (histograma[b] > 0) return rotulo(b);
+        }
+        return "0";
+    }
+    private static String rotulo(int balde) {
+        return balde == BALDES_LATENCIA ? ">" + BALDES_LATENCIA : String.valueOf(balde);
+    }
+}
+
+class ResumoTempo {
+    private static final double[] T_CRITICO_95 = {
+        12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+        2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+        2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+    public final double mediaMs;
+    public final double desvioMs;
+    public final int repeticoes;
+    public ResumoTempo(double mediaMs, double desvioMs, int repeticoes) {
+        this.mediaMs = mediaMs;
+        this.desvioMs = desvioMs;
+        this.repeticoes = repeticoes;
+    }
+    public static ResumoTempo deAmostras(long[] temposNs) {
+        int n = temposNs.length;
+        double soma = 0;
+        for (long t : temposNs) soma += t / 1_000_000.0;
+        double media = soma / n;
+        double somaQuadrados = 0;
+        for (long t : temposNs) {
+            double diferenca = t / 1_000_000.0 - media;
+            somaQuadrados += diferenca * diferenca;
+        }
+        double desvio = n > 1 ? Math.sqrt(somaQuadrados / (n - 1)) : 0.0;
+        return new ResumoTempo(media, desvio, n);
+    }
+    public static double tCritico(double grausLiberdade) {
+        int gl = (int) Math.floor(grausLiberdade);
+        if (gl < 1) return T_CRITICO_95[0];
+        if (gl > T_CRITICO_95.length) return 1.96;
+        return T_CRITICO_95[gl - 1];
+    }
+    public double semiIntervalo95() {
+        if (repeticoes < 2) return 0.0;
+        return tCritico(repeticoes - 1) * desvioMs / Math.sqrt(repeticoes);
+    }
+    public double throughput(int operacoes) {
+        return mediaMs > 0 ? operacoes / (mediaMs / 1000.0) : 0.0;
+    }
+}
+
+class ResultadoBenchmark {
+    public final String implementacao;
+    public final int tamanhoTabela;
+    public final int tamanhoDados;
+    public final long seed;
+    public final double fatorCarga;
+    public final int operacoes;
+    public final long[] temposInsercaoNs;
+    public final long[] temposBuscaNs;
+    public final long colisoes;
+    public final long redimensionamentos;
+    public final long trocasRepresentacao;
+    public final long chaves;
+    public final long bytesRetidos;
+    public final long aumentoPicoHeapBytes;
+    public final int[] top3;
+    public final GapStats gaps;
+    public final String status;
+    public ResultadoBenchmark(String implementacao, int tamanhoTabela, int tamanhoDados, long seed,
+                              double fatorCarga, int operacoes, long[] temposInsercaoNs, long[] temposBuscaNs,
+                              long colisoes, long redimensionamentos, long trocasRepresentacao, long chaves, long bytesRetidos, long aumentoPicoHeapBytes,
+                              int[] top3, GapStats gaps, String status) {
+        this.implementacao = implementacao;
+        this.tamanhoTabela = tamanhoTabela;
+        this.tamanhoDados = tamanhoDados;
+        this.seed = seed;
+        this.fatorCarga = fatorCarga;
+        this.operacoes = operacoes;
+        this.temposInsercaoNs = temposInsercaoNs;
+        this.temposBuscaNs = temposBuscaNs;
+        this.colisoes = colisoes;
+        this.redimensionamentos = redimensionamentos;
+        this.trocasRepresentacao = trocasRepresentacao;
+        this.chaves = chaves;
+        this.bytesRetidos = bytesRetidos;
+        this.aumentoPicoHeapBytes = aumentoPicoHeapBytes;
+        this.top3 = top3;
+        this.gaps = gaps;
+        this.status = status;
+    }
+    public String chave() { return chave(implementacao, tamanhoTabela, tamanhoDados); }
+    public static String chave(String implementacao, int tamanhoTabela, int tamanhoDados) {
+        return implementacao + "|" + tamanhoTabela + "|" + tamanhoDados;
+    }
+    public ResumoTempo resumoInsercao() { return ResumoTempo.deAmostras(temposInsercaoNs); }
+    public ResumoTempo resumoBusca() { return ResumoTempo.deAmostras(temposBuscaNs); }
+    public double bytesPorChave() { return chaves == 0 ? 0.0 : (double) bytesRetidos / chaves; }
+
+    public double throughputBuscaPorGB() {
+        return bytesRetidos == 0 ? 0.0 : resumoBusca().throughput(operacoes) / (bytesRetidos / (double) (1L << 30));
+    }
+}
+
+class RelatorioResultados {
+    static final double LIMIAR_REGRESSAO = 0.05;
+    static final String CABECALHO_CSV = "Implementacao,TamanhoTabela,TamanhoDados,Seed,FatorCarga,"
+        + "TempoInsercao(ms),DesvioInsercao(ms),IC95Insercao(ms),TempoBusca(ms),DesvioBusca(ms),IC95Busca(ms),"
+        + "Repeticoes,ThroughputInsercao(ops/s),ThroughputBusca(ops/s),"
+        + "BytesRetidos,BytesPorChave,AumentoPicoHeap(MB),ThroughputBuscaPorGB,"
+        + "Colisoes,Redimensionamentos,TrocasRepresentacao,Top1,Top2,Top3,MenorGap,MaiorGap,MediaGap,Status";
+    public static void escreverCsv(String arquivo, List<ResultadoBenchmark> resultados) throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(Paths.get(arquivo), StandardCharsets.UTF_8)) {
+            bw.write(CABECALHO_CSV);
+            bw.newLine();
+            for (ResultadoBenchmark r : resultados) {
+                ResumoTempo ins = r.resumoInsercao();
+                ResumoTempo bus = r.resumoBusca();
+                bw.write(String.format(Locale.ROOT,
+                    "%s,%d,%d,%d,%.2f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%.0f,%.0f,%d,%.1f,%.1f,%.0f,%d,%d,%d,%d,%d,%d,%d,%d,%.3f,%s",
+                    r.implementacao, r.tamanhoTabela, r.tamanhoDados, r.seed, r.fatorCarga,
+                    ins.mediaMs, ins.desvioMs, ins.semiIntervalo95(), bus.mediaMs, bus.desvioMs, bus.semiIntervalo95(),
+                    ins.repeticoes, ins.throughput(r.operacoes), bus.throughput(r.operacoes),
+                    r.bytesRetidos, r.bytesPorChave(), r.aumentoPicoHeapBytes / (1024.0 * 1024.0), r.throughputBuscaPorGB(),
+                    r.colisoes, r.redimensionamentos, r.trocasRepresentacao, r.top3[0], r.top3[1], r.top3[2],
+                    r.gaps.menorGap, r.gaps.maiorGap, r.gaps.mediaGap, r.status));
+                bw.newLine();
+            }
+        }
+    }
+    public static void escreverJson(String arquivo, List<ResultadoBenchmark> resultados) throws IOException {
+        Runtime rt = Runtime.getRuntime();
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"ambiente\": {\n");
+        sb.append("    \"data\": ").append(texto(java.time.Instant.now().toString())).append(",\n");
+        sb.append("    \"javaVersao\": ").append(texto(System.getProperty("java.version"))).append(",\n");
+        sb.append("    \"javaFornecedor\": ").append(texto(System.getProperty("java.vendor"))).append(",\n");
+        sb.append("    \"jvm\": ").append(texto(System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version"))).append(",\n");
+        sb.append("    \"sistemaOperacional\": ").append(texto(System.getProperty("os.name") + " " + System.getProperty("os.version"))).append(",\n");
+        sb.append("    \"arquitetura\": ").append(texto(System.getProperty("os.arch"))).append(",\n");
+        sb.append("    \"nucleos\": ").append(rt.availableProcessors()).append(",\n");
+        sb.append("    \"heapMaximoBytes\": ").append(rt.maxMemory()).append("\n");
+        sb.append("  },\n  \"resultados\": [");
+        for (int i = 0; i < resultados.size(); i++) {
+            ResultadoBenchmark r = resultados.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"implementacao\": ").append(texto(r.implementacao));
+            sb.append(", \"tamanhoTabela\": ").append(r.tamanhoTabela);
+            sb.append(", \"tamanhoDados\": ").append(r.tamanhoDados);
+            sb.append(", \"seed\": ").append(r.seed);
+            sb.append(String.format(Locale.ROOT, ", \"fatorCarga\": %.4f", r.fatorCarga));
+            sb.append(", \"operacoes\": ").append(r.operacoes);
+            sb.append(", \"insercao\": ").append(fase(r.resumoInsercao(), r.temposInsercaoNs, r.operacoes));
+            sb.append(", \"busca\": ").append(fase(r.resumoBusca(), r.temposBuscaNs, r.operacoes));
+            sb.append(", \"colisoes\": ").append(r.colisoes);
+            sb.append(", \"redimensionamentos\": ").append(r.redimensionamentos);
+            sb.append(", \"trocasRepresentacao\": ").append(r.trocasRepresentacao);
+            sb.append(String.format(Locale.ROOT, ", \"memoria\": {\"chaves\": %d, \"bytesRetidos\": %d, \"bytesPorChave\": %.2f, \"aumentoPicoHeapBytes\": %d, \"throughputBuscaPorGB\": %.0f}",
+                r.chaves, r.bytesRetidos, r.bytesPorChave(), r.aumentoPicoHeapBytes, r.throughputBuscaPorGB()));
+            sb.append(", \"top3\": [").append(r.top3[0]).append(", ").append(r.top3[1]).append(", ").append(r.top3[2]).append("]");
+            sb.append(String.format(Locale.ROOT, ", \"gaps\": {\"menor\": %d, \"maior\": %d, \"media\": %.3f}",
+                r.gaps.menorGap, r.gaps.maiorGap, r.gaps.mediaGap));
+            sb.append(", \"status\": ").append(texto(r.status)).append("}");
+        }
+        sb.append("\n  ]\n}\n");
+        try (BufferedWriter bw = Files.newBufferedWriter(Paths.get(arquivo), StandardCharsets.UTF_8)) {
+            bw.write(sb.toString());
+        }
+    }
+    private static String fase(ResumoTempo resumo, long[] temposNs, int operacoes) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "{\"mediaMs\": %.3f, \"desvioMs\": %.3f, \"ic95Ms\": %.3f, \"throughputOpsS\": %.0f, \"amostrasMs\": [",
+            resumo.mediaMs, resumo.desvioMs, resumo.semiIntervalo95(), resumo.throughput(operacoes)));
+        for (int i = 0; i < temposNs.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(String.format(Locale.ROOT, "%.3f", temposNs[i] / 1_000_000.0));
+        }
+        return sb.append("]}").toString();
+    }
+    private static String texto(String valor) {
+        return "\"" + valor.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+    public static Map<String, ResumoTempo[]> carregarBaseline(String arquivo) throws IOException {
+        List<String> linhas = Files.readAllLines(Paths.get(arquivo), StandardCharsets.UTF_8);
+        if (linhas.isEmpty()) throw new IOException("Baseline vazia: " + arquivo);
+        Map<String, Integer> colunas = new HashMap<>();
+        String[] cabecalho = linhas.get(0).split(",");
+        for (int i = 0; i < cabecalho.length; i++) colunas.put(cabecalho[i].trim(), i);
+        for (String obrigatoria : new String[]{"Implementacao", "TamanhoTabela", "TamanhoDados", "TempoInsercao(ms)", "DesvioInsercao(ms)",
+                "TempoBusca(ms)", "DesvioBusca(ms)", "Repeticoes"}) {
+            if (!colunas.containsKey(obrigatoria)) {
+                throw new IOException("Baseline sem a coluna '" + obrigatoria + "': " + arquivo);
+            }
+        }
+        Map<String, ResumoTempo[]> baseline = new HashMap<>();
+        for (int l = 1; l < linhas.size(); l++) {
+            if (linhas.get(l).isBlank()) continue;
+            String[] campos = linhas.get(l).split(",");
+            int repeticoes = (int) numero(campos, colunas, "Repeticoes", 1);
+            ResumoTempo insercao = new ResumoTempo(numero(campos, colunas, "TempoInsercao(ms)", 0),
+                numero(campos, colunas, "DesvioInsercao(ms)", 0), repeticoes);
+            ResumoTempo busca = new ResumoTempo(numero(campos, colunas, "TempoBusca(ms)", 0),
+                numero(campos, colunas, "DesvioBusca(ms)", 0), repeticoes);
+            String chave = ResultadoBenchmark.chave(campos[colunas.get("Implementacao")],
+                Integer.parseInt(campos[colunas.get("TamanhoTabela")]), Integer.parseInt(campos[colunas.get("TamanhoDados")]));
+            baseline.put(chave, new ResumoTempo[]{insercao, busca});
+        }
+        return baseline;
+    }
+    private static double numero(String[] campos, Map<String, Integer> colunas, String coluna, double padrao) {
+        Integer indice = colunas.get(coluna);
+        if (indice == null || indice >= campos.length) return padrao;
+        return Double.parseDouble(campos[indice]);
+    }
+    public static List<String> compararComBaseline(Map<String, ResumoTempo[]> baseline, List<ResultadoBenchmark> resultados) {
+        List<String> falhas = new ArrayList<>();
+        int comparadas = 0;
+        int semPar = 0;
+        for (ResultadoBenchmark r : resultados) {
+            ResumoTempo[] base = baseline.get(r.chave());
+            if (base == null) {
+                semPar++;
+                continue;
+            }
+            ResumoTempo[] atual = {r.resumoInsercao(), r.resumoBusca()};
+            String[] fases = {"Inserção", "Busca"};
+            for (int f = 0; f < fases.length; f++) {
+                if (base[f].repeticoes < 2 || atual[f].repeticoes < 2) {
+                    falhas.add(String.format(Locale.ROOT,
+                        "%s | tabela %d | dados %d | %s: não comparada, são necessárias pelo menos 2 repetições (baseline %d, atual %d)",
+                        r.implementacao, r.tamanhoTabela, r.tamanhoDados, fases[f], base[f].repeticoes, atual[f].repeticoes));
+                    continue;
+                }
+                comparadas++;
+                String regressao = compararFase(r, fases[f], base[f], atual[f]);
+                if (regressao != null) falhas.add(regressao);
+            }
+        }
+        System.out.printf("\nComparação com a baseline: %d fases comparadas, %d configurações sem par na baseline, %d da baseline fora desta execução\n",
+            comparadas, semPar, baseline.size() - (resultados.size() - semPar));
+        if (comparadas == 0) falhas.add("Nenhuma fase foi comparada com a baseline.");
+        return falhas;
+    }
+    private static String compararFase(ResultadoBenchmark r, String fase, ResumoTempo base, ResumoTempo atual) {
+        double varBase = base.desvioMs * base.desvioMs / base.repeticoes;
+        double varAtual = atual.desvioMs * atual.desvioMs / atual.repeticoes;
+        double erroPadrao = Math.sqrt(varBase + varAtual);
+        double diferenca = atual.mediaMs - base.mediaMs;
+        double margem = 0.0;
+        if (erroPadrao > 0) {
+            double gl = Math.pow(varBase + varAtual, 2)
+                / (varBase * varBase / (base.repeticoes - 1) + varAtual * varAtual / (atual.repeticoes - 1));
+            margem = ResumoTempo.tCritico(gl) * erroPadrao;
+        }
+        if (diferenca - margem <= LIMIAR_REGRESSAO * base.mediaMs) return null;
+        String variacao = base.mediaMs > 0
+            ? String.format(Locale.ROOT, "%+.1f%%", 100.0 * diferenca / base.mediaMs) : "baseline de 0 ms";
+        return String.format(Locale.ROOT,
+            "%s | tabela %d | dados %d | %s: %.3f ms -> %.3f ms (%s, IC95 da diferença [%+.3f, %+.3f] ms) | throughput %.0f -> %.0f ops/s",
+            r.implementacao, r.tamanhoTabela, r.tamanhoDados, fase, base.mediaMs, atual.mediaMs,
+            variacao, diferenca - margem, diferenca + margem,
+            base.throughput(r.operacoes), atual.throughput(r.operacoes));
+    }
 }
 
 class GeradorDeDados {
@@ -235,91 +1315,214 @@ class GeradorDeDados {
 }
 
 public class Projeto_Tabela_Hash {
-
     static final int[] TAMANHOS_TABELA = {1009, 10007, 100003};
-    
     static final int[] TAMANHOS_DADOS = {100_000, 1_000_000, 10_000_000};
     static final long[] SEEDS = {123456L, 234567L, 345678L};
-
-    public static void main(String[] args) throws IOException {
+    static final String[] NOMES = {"Encadeamento", "Sondagem Quadrática", "Hash Duplo", "Hopscotch", "Adaptativa"};
+    static final String[] IDENTIFICADORES = {"encadeamento", "quadratica", "duplo", "hopscotch", "adaptativa"};
+    static final int REPETICOES_PADRAO = 5;
+    static final String ARQUIVO_CSV = "resultados_hash_RA3.csv";
+    static final String ARQUIVO_JSON = "resultados_hash_RA3.json";
+    static TabelaHash criarTabela(int tipo, int capacidade) {
+        switch (tipo) {
+            case 0: return new HashEncadeamento(capacidade);
+            case 1: return new HashSondagemQuadratica(capacidade);
+            case 2: return new HashDuplo(capacidade);
+            case 3: return new HashHopscotch(capacidade);
+            case 4: return new HashAdaptativa(capacidade);
+            default: throw new IllegalArgumentException("Implementação desconhecida: " + tipo);
+        }
+    }
+    static Map<String, String> lerOpcoes(String[] args, int inicio, String... permitidas) {
+        Map<String, String> opcoes = new HashMap<>();
+        List<String> nomes = Arrays.asList(permitidas);
+        for (int a = inicio; a < args.length; a++) {
+            String nome = args[a].startsWith("--") ? args[a].substring(2) : "";
+            if (!nomes.contains(nome) || a + 1 >= args.length) {
+                throw new IllegalArgumentException("Argumento inválido: " + args[a]);
+            }
+            opcoes.put(nome, args[++a]);
+        }
+        return opcoes;
+    }
+    static int opcaoInteira(Map<String, String> opcoes, String nome, int padrao, int minimo, int maximo) {
+        String texto = opcoes.get(nome);
+        int valor = texto == null ? padrao : Integer.parseInt(texto);
+        if (valor < minimo || valor > maximo) {
+            throw new IllegalArgumentException("--" + nome + " deve estar entre " + minimo + " e " + maximo + ": " + valor);
+        }
+        return valor;
+    }
+    static void servidor(String[] args) throws IOException {
+        Map<String, String> opcoes = lerOpcoes(args, 1, "tabela", "capacidade", "endereco", "porta");
+        int tipo = Arrays.asList(IDENTIFICADORES).indexOf(opcoes.getOrDefault("tabela", "adaptativa"));
+        if (tipo < 0) throw new IllegalArgumentException("Tabela desconhecida: " + opcoes.get("tabela"));
+        int capacidade = opcaoInteira(opcoes, "capacidade", 100003, 2, Integer.MAX_VALUE - 8);
+        int porta = opcaoInteira(opcoes, "porta", 7070, 0, 65535);
+        TabelaHash tabela = criarTabela(tipo, capacidade);
+        String endereco = opcoes.getOrDefault("endereco", "127.0.0.1");
+        ServidorHash servidor = new ServidorHash(tabela, InetAddress.getByName(endereco), porta);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.printf(Locale.ROOT,
+            "\n%d operações em %d lotes (%.1f por lote)\n", servidor.getOperacoes(), servidor.getLotes(),
+            servidor.getLotes() == 0 ? 0.0 : (double) servidor.getOperacoes() / servidor.getLotes())));
+        System.out.println("Servidor (" + NOMES[tipo] + ") ouvindo em " + endereco + ":" + servidor.getPorta());
+        servidor.executar();
+    }
+    static void cliente(String[] args) throws Exception {
+        Map<String, String> opcoes = lerOpcoes(args, 1, "endereco", "porta", "conexoes", "profundidade", "lote", "chaves", "duracao");
+        int porta = opcaoInteira(opcoes, "porta", 7070, 1, 65535);
+        int conexoes = opcaoInteira(opcoes, "conexoes", 4, 1, Integer.MAX_VALUE);
+        int profundidade = opcaoInteira(opcoes, "profundidade", 32, 1, Integer.MAX_VALUE);
+        int lote = opcaoInteira(opcoes, "lote", 0, 0, ServidorHash.MAXIMO_LOTE);
+        int chaves = opcaoInteira(opcoes, "chaves", 1_000_000, 0, Integer.MAX_VALUE);
+        int duracao = opcaoInteira(opcoes, "duracao", 10, 1, Integer.MAX_VALUE);
+        ClienteCargaHash cliente = new ClienteCargaHash(InetAddress.getByName(opcoes.getOrDefault("endereco", "127.0.0.1")),
+            porta, conexoes, profundidade, lote);
+        if (chaves > 0) {
+            System.out.println("Inserindo " + chaves + " chaves...");
+            cliente.carregar(GeradorDeDados.gerar(chaves, SEEDS[0]));
+        }
+        System.out.println("Medindo por " + duracao + " s...");
+        cliente.medir(duracao);
+    }
+    static List<Integer> selecionar(Map<String, String> opcoes, String nome, List<String> validos) {
+        List<Integer> indices = new ArrayList<>();
+        String valor = opcoes.get(nome);
+        if (valor == null) {
+            for (int i = 0; i < validos.size(); i++) indices.add(i);
+            return indices;
+        }
+        for (String item : valor.split(",")) {
+            int indice = validos.indexOf(item.trim());
+            if (indice < 0) {
+                throw new IllegalArgumentException("--" + nome + " aceita " + String.join(",", validos) + ": " + item);
+            }
+            if (!indices.contains(indice)) indices.add(indice);
+        }
+        Collections.sort(indices);
+        return indices;
+    }
+    static List<String> textos(int[] valores) {
+        List<String> textos = new ArrayList<>();
+        for (int valor : valores) textos.add(String.valueOf(valor));
+        return textos;
+    }
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("servidor")) {
+            servidor(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("cliente")) {
+            cliente(args);
+            return;
+        }
+        Map<String, String> opcoes = lerOpcoes(args, 0, "repeticoes", "baseline", "implementacoes", "tabelas", "tamanhos");
+        List<Integer> implementacoes = selecionar(opcoes, "implementacoes", Arrays.asList(IDENTIFICADORES));
+        List<Integer> tabelas = selecionar(opcoes, "tabelas", textos(TAMANHOS_TABELA));
+        List<Integer> tamanhos = selecionar(opcoes, "tamanhos", textos(TAMANHOS_DADOS));
+        String arquivoBaseline = opcoes.get("baseline");
+        int repeticoes = Integer.parseInt(opcoes.getOrDefault("repeticoes", String.valueOf(REPETICOES_PADRAO)));
+        if (repeticoes < 1) {
+            throw new IllegalArgumentException("--repeticoes deve ser pelo menos 1: " + repeticoes);
+        }
+        if (arquivoBaseline != null && repeticoes < 2) {
+            throw new IllegalArgumentException("--baseline exige --repeticoes de pelo menos 2: " + repeticoes);
+        }
+        Map<String, ResumoTempo[]> baseline = arquivoBaseline == null ? null : RelatorioResultados.carregarBaseline(arquivoBaseline);
         System.out.println("  Análise de Tabela Hash RA3  ");
-
-        List<String> csvLines = new ArrayList<>();
-        csvLines.add("Implementacao,TamanhoTabela,TamanhoDados,Seed,FatorCarga,TempoInsercao(ms),TempoBusca(ms),Colisoes,Top1,Top2,Top3,MenorGap,MaiorGap,MediaGap,Status");
-        
-        String[] NOMES = {"Encadeamento", "Sondagem Quadrática", "Hash Duplo"};
-
-        for (int tamTabela : TAMANHOS_TABELA) {
-            for (int i = 0; i < TAMANHOS_DADOS.length; i++) {
+        List<ResultadoBenchmark> resultados = new ArrayList<>();
+        for (int indiceTabela : tabelas) {
+            int tamTabela = TAMANHOS_TABELA[indiceTabela];
+            for (int i : tamanhos) {
                 int tamDados = TAMANHOS_DADOS[i];
                 long seed = SEEDS[i];
-
                 double fatorCarga = (double) tamDados / tamTabela;
                 System.out.printf("\nGerando %d registros (seed=%d) para tabela de %d (Fator de Carga: %.2f)\n", tamDados, seed, tamTabela, fatorCarga);
                 Registro[] dadosOriginais = GeradorDeDados.gerar(tamDados, seed);
-
-                TabelaHash[] tabelas = {
-                    new HashEncadeamento(tamTabela),
-                    new HashSondagemQuadratica(tamTabela),
-                    new HashDuplo(tamTabela)
-                };
-
-                for (int j = 0; j < tabelas.length; j++) {
-                    TabelaHash t = tabelas[j];
+                for (int j : implementacoes) {
+                    TabelaHash t = criarTabela(j, tamTabela);
                     String nome = NOMES[j];
-                    
                     Registro[] dadosParaTeste = dadosOriginais;
                     String status = "OK";
-
-                    if (fatorCarga >= 1.0 && !(t instanceof HashEncadeamento)) {
+                    if (fatorCarga >= 1.0 && !(t instanceof HashEncadeamento || t instanceof HashHopscotch || t instanceof HashAdaptativa)) {
                         System.out.println("-> AVISO para " + nome + ": Número de dados excede a capacidade. Testando com os primeiros " + tamTabela + " registros.");
                         dadosParaTeste = new Registro[tamTabela];
                         System.arraycopy(dadosOriginais, 0, dadosParaTeste, 0, tamTabela);
                         status = "CAPACIDADE_MAXIMA";
                     }
-                    
                     System.out.println("-> Testando: " + nome);
-                    System.gc();
-                    t.resetarEstatisticas();
-
-                    long inicio = System.nanoTime();
+                    long[] temposInsercao = new long[repeticoes];
+                    long[] temposBusca = new long[repeticoes];
                     int inseridosComSucesso = 0;
-                    for (Registro r : dadosParaTeste) {
-                        if (t.inserir(r)) inseridosComSucesso++;
+                    long aumentoPicoHeap = 0;
+                    for (int rep = -1; rep < repeticoes; rep++) {
+                        if (rep >= 0) t = criarTabela(j, tamTabela);
+                        System.gc();
+                        t.resetarEstatisticas();
+                        UtilitariosHash.reiniciarPicoHeap();
+                        long heapAntes = UtilitariosHash.usoHeap();
+                        long inicio = System.nanoTime();
+                        inseridosComSucesso = 0;
+                        for (Registro r : dadosParaTeste) {
+                            if (t.inserir(r)) inseridosComSucesso++;
+                        }
+                        long tempoInsercao = System.nanoTime() - inicio;
+                        long aumentoPico = Math.max(UtilitariosHash.picoHeap() - heapAntes, 0);
+                        inicio = System.nanoTime();
+                        int achados = 0;
+                        for (Registro r : dadosParaTeste) {
+                            if (t.buscar(r)) achados++;
+                        }
+                        long tempoBusca = System.nanoTime() - inicio;
+                        if (rep < 0) continue;
+                        temposInsercao[rep] = tempoInsercao;
+                        temposBusca[rep] = tempoBusca;
+                        aumentoPicoHeap = Math.max(aumentoPicoHeap, aumentoPico);
                     }
-                    long tempoInsercao = (System.nanoTime() - inicio) / 1_000_000;
-
-                    inicio = System.nanoTime();
-                    int achados = 0;
-                    for (Registro r : dadosParaTeste) {
-                        if (t.buscar(r)) achados++;
-                    }
-                    long tempoBusca = (System.nanoTime() - inicio) / 1_000_000;
-
                     long col = t.getColisoes();
+                    long redim = t.getRedimensionamentos();
+                    long trocasRepresentacao = t instanceof HashAdaptativa ? ((HashAdaptativa) t).getTrocasRepresentacao() : 0;
                     int[] top = t.getTop3Listas();
                     GapStats g = t.calcularGaps();
-                    
-                    System.out.printf(Locale.ROOT,"   > Inseridos: %d/%d | Colisões: %d | Tempo: %dms\n",
-                        inseridosComSucesso, dadosParaTeste.length, col, tempoInsercao);
+                    long chaves = t.intStream().count();
+                    double cargaFinal = (double) chaves / t.getCapacidade();
+                    long bytesRetidos = t.getBytesRetidos();
+                    ResultadoBenchmark resultado = new ResultadoBenchmark(nome, tamTabela, tamDados, seed, cargaFinal,
+                        dadosParaTeste.length, temposInsercao, temposBusca, col, redim, trocasRepresentacao, chaves, bytesRetidos, aumentoPicoHeap, top, g, status);
+                    ResumoTempo insercao = resultado.resumoInsercao();
+                    ResumoTempo busca = resultado.resumoBusca();
+                    System.out.printf(Locale.ROOT,"   > Inseridos: %d/%d | Colisões: %d | Redimensionamentos: %d | Carga final: %.2f | Tempo: %.1f ± %.1f ms\n",
+                        inseridosComSucesso, dadosParaTeste.length, col, redim, cargaFinal, insercao.mediaMs, insercao.semiIntervalo95());
+                    System.out.printf(Locale.ROOT,"   > Busca: %.1f ± %.1f ms | IC95 sobre %d repetições\n",
+                        busca.mediaMs, busca.semiIntervalo95(), repeticoes);
                     System.out.printf(Locale.ROOT,"   > Top 3 Listas: %d, %d, %d | Gaps (Min/Média/Max): %d / %.2f / %d\n",
                         top[0], top[1], top[2], g.menorGap, g.mediaGap, g.maiorGap);
+                    System.out.printf(Locale.ROOT,"   > Memória: %d bytes retidos | %.1f bytes/chave | Aumento do pico de heap na construção: %.1f MB\n",
+                        bytesRetidos, resultado.bytesPorChave(), aumentoPicoHeap / (1024.0 * 1024.0));
+                    if (t instanceof HashAdaptativa) {
+                        System.out.println("   > Trocas de representação: " + trocasRepresentacao);
+                        for (String troca : ((HashAdaptativa) t).getHistoricoTrocas()) {
+                            System.out.println("   > Troca: " + troca);
+                        }
+                    }
 
-                    String linhaCsv = String.format(Locale.ROOT, "%s,%d,%d,%d,%.2f,%d,%d,%d,%d,%d,%d,%d,%d,%.3f,%s",
-                        nome, tamTabela, tamDados, seed, fatorCarga, tempoInsercao, tempoBusca, col,
-                        top[0], top[1], top[2], g.menorGap, g.maiorGap, g.mediaGap, status);
-                    csvLines.add(linhaCsv);
+                    resultados.add(resultado);
                 }
             }
         }
-        
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter("resultados_hash_RA3.csv"))) {
-            for (String line : csvLines) {
-                bw.write(line);
-                bw.newLine();
+        RelatorioResultados.escreverCsv(ARQUIVO_CSV, resultados);
+        RelatorioResultados.escreverJson(ARQUIVO_JSON, resultados);
+        System.out.println("\n\nResultados salvos com sucesso nos arquivos '" + ARQUIVO_CSV + "' e '" + ARQUIVO_JSON + "'");
+        System.out.println("Agora é só abrir no Excel ou Google Sheets e gerar os gráficos para o seu relatório!");
+        if (baseline != null) {
+            List<String> falhas = RelatorioResultados.compararComBaseline(baseline, resultados);
+            if (falhas.isEmpty()) {
+                System.out.println("Nenhuma regressão em relação a '" + arquivoBaseline + "'.");
+            } else {
+                System.out.println(falhas.size() + " falha(s) na comparação com '" + arquivoBaseline + "':");
+                for (String falha : falhas) System.out.println("   ! " + falha);
+                System.exit(1);
             }
         }
-        System.out.println("\n\nResultados salvos com sucesso no arquivo 'resultados_hash_RA3.csv'");
-        System.out.println("Agora é só abrir no Excel ou Google Sheets e gerar os gráficos para o seu relatório!");
     }
 }
\ No newline at end of file